@@ -0,0 +1,152 @@
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Immutable set of code points used by the shorthand classes.
+ *
+ * ASCII membership is a 128-bit table held in two longs; everything above ASCII is
+ * a sorted array of inclusive [start, end] ranges searched by binary search. In
+ * Unicode mode the ASCII part of each class is identical to ASCII mode.
+ */
+public final class CharacterClass {
+    private static final int ASCII_LIMIT = 128;
+    private static final int[] NO_RANGES = new int[0];
+
+    // Bit n of LOW is code point n, bit n of HIGH is code point 64 + n.
+    private static final CharacterClass ASCII_DIGIT = new CharacterClass(
+        0x03FF000000000000L, 0L, NO_RANGES);
+    private static final CharacterClass ASCII_WORD = new CharacterClass(
+        0x03FF000000000000L, 0x07FFFFFE87FFFFFEL, NO_RANGES);
+    private static final CharacterClass ASCII_WHITESPACE = new CharacterClass(
+        0x0000000100003E00L, 0L, NO_RANGES);
+
+    private final long asciiLow;
+    private final long asciiHigh;
+    private final int[] ranges;
+
+    private CharacterClass(long asciiLow, long asciiHigh, int[] ranges) {
+        this.asciiLow = asciiLow;
+        this.asciiHigh = asciiHigh;
+        this.ranges = ranges;
+    }
+
+    /**
+     * Digits: [0-9] in ASCII mode, every decimal digit in Unicode mode.
+     */
+    public static CharacterClass digit(CharacterClassMode mode) {
+        return mode == CharacterClassMode.UNICODE ? UnicodeDigit.CLASS : ASCII_DIGIT;
+    }
+
+    /**
+     * Word characters: [A-Za-z0-9_] in ASCII mode, letters, digits and underscore in Unicode mode.
+     */
+    public static CharacterClass word(CharacterClassMode mode) {
+        return mode == CharacterClassMode.UNICODE ? UnicodeWord.CLASS : ASCII_WORD;
+    }
+
+    /**
+     * Whitespace: [ \t\n\x0B\f\r] in ASCII mode, the Unicode White_Space set in Unicode mode.
+     */
+    public static CharacterClass whitespace(CharacterClassMode mode) {
+        return mode == CharacterClassMode.UNICODE ? UnicodeWhitespace.CLASS : ASCII_WHITESPACE;
+    }
+
+    public boolean contains(int codePoint) {
+        if (codePoint < 64) {
+            return (asciiLow & (1L << codePoint)) != 0;
+        }
+        if (codePoint < ASCII_LIMIT) {
+            return (asciiHigh & (1L << codePoint)) != 0; // Shift uses the low six bits
+        }
+        return inRanges(codePoint);
+    }
+
+    /**
+     * Returns the set of all code points not in this class.
+     */
+    public CharacterClass complement() {
+        return new CharacterClass(~asciiLow, ~asciiHigh, complementRanges(ranges));
+    }
+
+    private boolean inRanges(int codePoint) {
+        int low = 0;
+        int high = ranges.length / 2 - 1;
+
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (codePoint < ranges[2 * mid]) {
+                high = mid - 1;
+            } else if (codePoint > ranges[2 * mid + 1]) {
+                low = mid + 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int[] complementRanges(int[] ranges) {
+        int[] result = new int[ranges.length + 2];
+        int count = 0;
+        int next = ASCII_LIMIT;
+
+        for (int i = 0; i < ranges.length; i += 2) {
+            if (ranges[i] > next) {
+                result[count++] = next;
+                result[count++] = ranges[i] - 1;
+            }
+            next = ranges[i + 1] + 1;
+        }
+        if (next <= Character.MAX_CODE_POINT) {
+            result[count++] = next;
+            result[count++] = Character.MAX_CODE_POINT;
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Collects the non-ASCII code points accepted by the predicate into sorted ranges.
+     * Scans every code point once, so tables always follow the running JDK's Unicode version.
+     */
+    private static int[] rangesOf(IntPredicate predicate) {
+        int[] ranges = new int[64];
+        int count = 0;
+        int start = -1;
+        for (int c = ASCII_LIMIT; c <= Character.MAX_CODE_POINT + 1; c++) {
+            boolean member = c <= Character.MAX_CODE_POINT && predicate.test(c);
+            if (member && start < 0) {
+                start = c;
+            } else if (!member && start >= 0) {
+                if (count == ranges.length) {
+                    ranges = Arrays.copyOf(ranges, count * 2);
+                }
+                ranges[count++] = start;
+                ranges[count++] = c - 1;
+                start = -1;
+            }
+        }
+        return Arrays.copyOf(ranges, count);
+    }
+
+    /**
+     * Unicode classes share the ASCII bitmaps and add range tables built once at class
+     * initialisation. Each has its own holder so a pattern only builds the classes it
+     * uses, and ASCII-only runs build none.
+     */
+    private static final class UnicodeDigit {
+        static final CharacterClass CLASS = new CharacterClass(
+            ASCII_DIGIT.asciiLow, ASCII_DIGIT.asciiHigh, rangesOf(Character::isDigit));
+    }
+
+    private static final class UnicodeWord {
+        static final CharacterClass CLASS = new CharacterClass(
+            ASCII_WORD.asciiLow, ASCII_WORD.asciiHigh, rangesOf(Character::isLetterOrDigit));
+    }
+
+    private static final class UnicodeWhitespace {
+        // White_Space above ASCII: the space separators plus U+0085 (NEL).
+        static final CharacterClass CLASS = new CharacterClass(
+            ASCII_WHITESPACE.asciiLow, ASCII_WHITESPACE.asciiHigh,
+            rangesOf(c -> Character.isSpaceChar(c) || c == 0x85));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,14 @@
+/**
+ * Selects how the shorthand classes (\d, \w, \s and their negations) are interpreted.
+ */
+public enum CharacterClassMode {
+    /**
+     * POSIX-grep semantics: only ASCII characters belong to the classes.
+     */
+    ASCII,
+
+    /**
+     * Unicode semantics: classes cover every matching code point.
+     */
+    UNICODE
+}
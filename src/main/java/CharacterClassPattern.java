@@ -0,0 +1,32 @@
+/**
+ * Base class for shorthand classes backed by a {@link CharacterClass} table.
+ * Matches whole code points, so a surrogate pair is consumed as one character.
+ */
+public abstract class CharacterClassPattern extends PatternElement {
+    private final CharacterClass characterClass;
+    
+    protected CharacterClassPattern(CharacterClass characterClass, boolean negated) {
+        this.characterClass = negated ? characterClass.complement() : characterClass;
+    }
+    
+    @Override
+    public boolean matchesCharacter(char c) {
+        return characterClass.contains(c);
+    }
+    
+    @Override
+    public int matchLength(String input, int position) {
+        if (position >= input.length() || isInsideSurrogatePair(input, position)) {
+            return -1;
+        }
+        
+        int codePoint = input.codePointAt(position);
+        return characterClass.contains(codePoint) ? Character.charCount(codePoint) : -1;
+    }
+    
+    private static boolean isInsideSurrogatePair(String input, int position) {
+        return position > 0
+            && Character.isLowSurrogate(input.charAt(position))
+            && Character.isHighSurrogate(input.charAt(position - 1));
+    }
+}
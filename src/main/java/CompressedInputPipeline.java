@@ -0,0 +1,371 @@
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Matches every line of a file, decompressing gzip input on its own thread.
+ *
+ * A reader thread decompresses and splits the input into a fixed ring of
+ * {@link LineBatch}es while matcher threads consume them, so decompression and
+ * matching overlap. The calling thread emits finished batches in input order and
+ * only then returns them to the ring, which bounds memory. Plain (uncompressed)
+ * files go through the same pipeline.
+ *
+ * The worker threads are created once and reused for every input, so searching many
+ * small files does not pay for thread startup each time. Close the pipeline when done.
+ */
+public class CompressedInputPipeline implements AutoCloseable {
+    private static final int GZIP_MAGIC_FIRST = 0x1f;
+    private static final int GZIP_MAGIC_SECOND = 0x8b;
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final int DEFAULT_BATCH_SIZE = 1024;
+    private static final int DEFAULT_RING_SIZE = 8;
+    private static final int WORKER_JOIN_TIMEOUT_SECONDS = 10;
+    private static final LineBatch END_OF_INPUT = new LineBatch(0);
+
+    private final PatternMatcher pattern;
+    private final int matcherThreads;
+    private final int ringSize;
+    private final int batchSize;
+    private final ExecutorService workers;
+
+    public CompressedInputPipeline(PatternMatcher pattern) {
+        this(pattern, Math.max(1, Runtime.getRuntime().availableProcessors() - 1),
+            DEFAULT_RING_SIZE, DEFAULT_BATCH_SIZE);
+    }
+
+    public CompressedInputPipeline(PatternMatcher pattern, int matcherThreads, int ringSize, int batchSize) {
+        if (matcherThreads < 1 || ringSize < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("Pipeline sizes must be positive");
+        }
+        this.pattern = pattern;
+        this.matcherThreads = matcherThreads;
+        this.ringSize = ringSize;
+        this.batchSize = batchSize;
+        this.workers = Executors.newFixedThreadPool(matcherThreads + 1, new WorkerThreadFactory());
+    }
+
+    /**
+     * Matches every line of the file, passing matched lines to the sink in input order.
+     * Returns true if any line matched.
+     */
+    public boolean run(Path file, Consumer<String> sink) throws IOException {
+        try (InputStream input = openDecompressed(file)) {
+            return run(input, sink);
+        }
+    }
+
+    /**
+     * Matches every line of an already decompressed stream. The stream is read to
+     * the end but not closed; closing it stays with the caller.
+     */
+    public synchronized boolean run(InputStream input, Consumer<String> sink) throws IOException {
+        return new Run(input, sink).execute();
+    }
+
+    /**
+     * Opens the file, transparently decompressing it when it starts with the gzip magic bytes.
+     */
+    public static InputStream openDecompressed(Path file) throws IOException {
+        InputStream raw = new BufferedInputStream(Files.newInputStream(file), READ_BUFFER_SIZE);
+        try {
+            raw.mark(2);
+            boolean gzip = raw.read() == GZIP_MAGIC_FIRST && raw.read() == GZIP_MAGIC_SECOND;
+            raw.reset();
+            return gzip ? new GZIPInputStream(raw, READ_BUFFER_SIZE) : raw;
+        } catch (IOException e) {
+            raw.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Names the workers and marks them as daemons so an unclosed pipeline cannot keep
+     * the JVM alive.
+     */
+    private static final class WorkerThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, "pipeline-worker-" + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    /**
+     * Stops the worker threads. Any run in progress is left to finish first.
+     */
+    @Override
+    public void close() {
+        workers.shutdown();
+    }
+
+    /**
+     * State for a single pass over one input.
+     *
+     * Failures come in two kinds. A read failure (a truncated or corrupt archive) ends
+     * the input early, but every line read before it is still matched and emitted
+     * before the error is thrown. An abort (matcher or sink failure, interruption)
+     * stops the run at once.
+     */
+    private final class Run {
+        private final InputStream input;
+        private final Consumer<String> sink;
+        private final BlockingQueue<LineBatch> free;
+        private final BlockingQueue<LineBatch> filled;
+        private final BlockingQueue<LineBatch> inOrder;
+        private final CountDownLatch finished = new CountDownLatch(matcherThreads + 1);
+        private final AtomicReference<IOException> readFailure = new AtomicReference<>();
+        private final AtomicReference<Throwable> abort = new AtomicReference<>();
+        private volatile Thread reader;
+        private boolean anyMatched;
+        // Reader-thread state: the batch being filled and the bytes of an unfinished line.
+        private LineBatch batch;
+        private byte[] carry = new byte[256];
+        private int carryLength;
+
+        Run(InputStream input, Consumer<String> sink) {
+            this.input = input;
+            this.sink = sink;
+            this.free = new ArrayBlockingQueue<>(ringSize);
+            // Room for every batch plus end-of-input markers, so publishing never blocks.
+            this.filled = new ArrayBlockingQueue<>(ringSize + 2);
+            this.inOrder = new ArrayBlockingQueue<>(ringSize + 1);
+            for (int i = 0; i < ringSize; i++) {
+                free.add(new LineBatch(batchSize));
+            }
+        }
+
+        boolean execute() throws IOException {
+            workers.execute(this::readLines);
+            for (int i = 0; i < matcherThreads; i++) {
+                workers.execute(this::matchBatches);
+            }
+
+            try {
+                emitInOrder();
+            } catch (InterruptedException e) {
+                abort(new InterruptedIOException("Interrupted while matching input"));
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException | Error e) {
+                abort(e);
+            }
+            // The caller closes the stream once we return, so the reader must be done with it.
+            awaitWorkers();
+
+            Throwable error = abort.get();
+            if (error == null) {
+                error = readFailure.get();
+            }
+            if (error instanceof IOException) {
+                throw (IOException) error;
+            } else if (error instanceof RuntimeException) {
+                throw (RuntimeException) error;
+            } else if (error instanceof Error) {
+                throw (Error) error;
+            }
+            return anyMatched;
+        }
+
+        /**
+         * Runs on the calling thread: emits batches in input order and returns them to
+         * the ring. The sink is called outside any lock, so matchers never wait on output.
+         */
+        private void emitInOrder() throws InterruptedException {
+            while (true) {
+                LineBatch batch = inOrder.take();
+                if (batch == END_OF_INPUT || !awaitCompletion(batch)) {
+                    return;
+                }
+                batch.emitMatches(sink);
+                anyMatched |= batch.hasMatches();
+                batch.clear();
+                free.add(batch);
+            }
+        }
+
+        /**
+         * Waits for all workers of this run to finish, bounded so a reader stuck in a
+         * blocking read cannot hang the caller forever.
+         */
+        private void awaitWorkers() {
+            boolean interrupted = Thread.interrupted();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(WORKER_JOIN_TIMEOUT_SECONDS);
+            try {
+                while (true) {
+                    try {
+                        finished.await(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                        return;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            } finally {
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        private void readLines() {
+            reader = Thread.currentThread();
+            try {
+                try {
+                    readChunks();
+                } catch (IOException e) {
+                    // Keep what was read before the failure; it is emitted before the error is thrown.
+                    readFailure.set(e);
+                }
+                finishInput();
+            } catch (InterruptedException e) {
+                abort(new InterruptedIOException("Interrupted while reading input"));
+            } catch (RuntimeException | Error e) {
+                abort(e);
+            } finally {
+                reader = null;
+                inOrder.offer(END_OF_INPUT);
+                filled.offer(END_OF_INPUT);
+                finished.countDown();
+            }
+        }
+
+        /**
+         * Splits raw chunks on '\n' bytes. Unlike BufferedReader, nothing already read is
+         * lost if the stream fails midway. The caller owns the stream, so it is not closed.
+         */
+        private void readChunks() throws IOException, InterruptedException {
+            byte[] chunk = new byte[READ_BUFFER_SIZE];
+            int read;
+            while (abort.get() == null && (read = input.read(chunk)) != -1) {
+                int start = 0;
+                for (int i = 0; i < read; i++) {
+                    if (chunk[i] == '\n') {
+                        if (carryLength == 0) {
+                            addLine(decodeLine(chunk, start, i));
+                        } else {
+                            appendCarry(chunk, start, i);
+                            addLine(decodeLine(carry, 0, carryLength));
+                            carryLength = 0;
+                        }
+                        start = i + 1;
+                    }
+                }
+                appendCarry(chunk, start, read);
+            }
+        }
+
+        /**
+         * Publishes the final unterminated line, if any, and the last partial batch.
+         */
+        private void finishInput() throws InterruptedException {
+            if (carryLength > 0) {
+                addLine(decodeLine(carry, 0, carryLength));
+                carryLength = 0;
+            }
+            if (batch != null && !batch.isEmpty()) {
+                publish(batch);
+                batch = null;
+            }
+        }
+
+        private void addLine(String line) throws InterruptedException {
+            if (batch == null) {
+                batch = free.take(); // Blocks while matchers are behind
+            }
+            batch.add(line);
+            if (batch.isFull()) {
+                publish(batch);
+                batch = null;
+            }
+        }
+
+        private void appendCarry(byte[] bytes, int from, int to) {
+            int length = to - from;
+            if (carryLength + length > carry.length) {
+                carry = Arrays.copyOf(carry, Math.max(carry.length * 2, carryLength + length));
+            }
+            System.arraycopy(bytes, from, carry, carryLength, length);
+            carryLength += length;
+        }
+
+        private String decodeLine(byte[] bytes, int from, int to) {
+            if (to > from && bytes[to - 1] == '\r') {
+                to--; // Accept CRLF line endings
+            }
+            return new String(bytes, from, to - from, StandardCharsets.UTF_8);
+        }
+
+        private void publish(LineBatch batch) {
+            inOrder.add(batch);
+            filled.add(batch);
+        }
+
+        private void matchBatches() {
+            try {
+                while (true) {
+                    LineBatch batch = filled.take();
+                    if (batch == END_OF_INPUT) {
+                        filled.offer(END_OF_INPUT); // Let the other matchers see it too
+                        return;
+                    }
+                    if (abort.get() == null) {
+                        batch.match(pattern);
+                    }
+                    complete(batch);
+                }
+            } catch (InterruptedException e) {
+                abort(new InterruptedIOException("Interrupted while matching input"));
+            } catch (RuntimeException | Error e) {
+                abort(e);
+            } finally {
+                finished.countDown();
+            }
+        }
+
+        private synchronized void complete(LineBatch batch) {
+            batch.markComplete();
+            notifyAll();
+        }
+
+        /**
+         * Waits for the batch to be matched; returns false if the run was aborted first.
+         * A read failure does not stop emission of batches that were already published.
+         */
+        private synchronized boolean awaitCompletion(LineBatch batch) throws InterruptedException {
+            while (!batch.isComplete() && abort.get() == null) {
+                wait();
+            }
+            return batch.isComplete() && abort.get() == null;
+        }
+
+        private void abort(Throwable error) {
+            abort.compareAndSet(null, error);
+            Thread current = reader;
+            if (current != null && current != Thread.currentThread()) {
+                current.interrupt();
+            }
+            filled.offer(END_OF_INPUT); // Wake matchers blocked on an empty queue
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+    }
+}
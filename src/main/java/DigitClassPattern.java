@@ -1,10 +1,13 @@
 /**
- * Matches any digit character (\d).
+ * Matches any digit character (\d), or any non-digit when negated (\D).
  */
-public class DigitClassPattern extends PatternElement {
+public class DigitClassPattern extends CharacterClassPattern {
     
-    @Override
-    public boolean matchesCharacter(char c) {
-        return Character.isDigit(c);
+    public DigitClassPattern() {
+        this(CharacterClassMode.ASCII, false);
+    }
+    
+    public DigitClassPattern(CharacterClassMode mode, boolean negated) {
+        super(CharacterClass.digit(mode), negated);
     }
 }
\ No newline at end of file
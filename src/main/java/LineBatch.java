@@ -0,0 +1,75 @@
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * A reusable block of input lines handed from the reader stage to the matcher stage.
+ */
+public class LineBatch {
+    private final String[] lines;
+    private final boolean[] matched;
+    private int size;
+    private boolean anyMatched;
+    private boolean complete;
+
+    public LineBatch(int capacity) {
+        this.lines = new String[capacity];
+        this.matched = new boolean[capacity];
+    }
+
+    public boolean isFull() {
+        return size == lines.length;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean hasMatches() {
+        return anyMatched;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public void markComplete() {
+        this.complete = true;
+    }
+
+    public void add(String line) {
+        lines[size++] = line;
+    }
+
+    /**
+     * Runs the pattern over every line, recording which ones matched.
+     */
+    public void match(PatternMatcher pattern) {
+        boolean any = false;
+        for (int i = 0; i < size; i++) {
+            matched[i] = pattern.matches(lines[i]);
+            any |= matched[i];
+        }
+        anyMatched = any;
+    }
+
+    /**
+     * Passes the matched lines, in input order, to the given sink.
+     */
+    public void emitMatches(Consumer<String> sink) {
+        for (int i = 0; i < size; i++) {
+            if (matched[i]) {
+                sink.accept(lines[i]);
+            }
+        }
+    }
+
+    /**
+     * Empties the batch so it can go back into the ring.
+     */
+    public void clear() {
+        Arrays.fill(lines, 0, size, null);
+        size = 0;
+        anyMatched = false;
+        complete = false;
+    }
+}
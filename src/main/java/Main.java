@@ -1,27 +1,77 @@
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.FileSystemException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Scanner;
+import java.util.function.Consumer;
 
 /**
  * Main entry point for the regex matcher application.
  */
 public class Main {
+    private static final String USAGE = "Usage: ./your_program.sh [--unicode] -E <pattern> [file...]";
+    
     private final PatternFactory patternFactory;
     
     public Main() {
-        this.patternFactory = new PatternFactory();
+        this(CharacterClassMode.ASCII);
+    }
+    
+    public Main(CharacterClassMode classMode) {
+        this.patternFactory = new PatternFactory(classMode);
     }
 
     public static void main(String[] args) {
-        new Main().run(args);
+        CharacterClassMode classMode = CharacterClassMode.ASCII;
+        List<String> operands = new ArrayList<>();
+        boolean optionsEnded = false;
+        
+        // Long options may appear anywhere; the argument after -E is always the pattern.
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (optionsEnded) {
+                operands.add(arg);
+            } else if ("-E".equals(arg) && i + 1 < args.length) {
+                operands.add(arg);
+                operands.add(args[++i]);
+            } else if ("--".equals(arg)) {
+                optionsEnded = true;
+            } else if ("--unicode".equals(arg)) {
+                classMode = CharacterClassMode.UNICODE;
+            } else if (arg.startsWith("--")) {
+                System.err.println("Unknown option: " + arg);
+                System.err.println(USAGE);
+                System.exit(2);
+            } else {
+                operands.add(arg);
+            }
+        }
+        
+        new Main(classMode).run(operands.toArray(new String[0]));
     }
     
     private void run(String[] args) {
-        if (args.length != 2 || !"-E".equals(args[0])) {
-            System.err.println("Usage: ./your_program.sh -E <pattern>");
-            System.exit(1);
+        if (args.length < 2 || !"-E".equals(args[0])) {
+            System.err.println(USAGE);
+            System.exit(2);
         }
 
         String patternString = args[1];
         
+        if (args.length > 2) {
+            runOnFiles(patternString, args);
+            return;
+        }
+        
         try (Scanner scanner = new Scanner(System.in)) {
             String inputLine = scanner.nextLine();
             
@@ -34,4 +84,50 @@ public class Main {
             System.exit(1);
         }
     }
+    
+    private void runOnFiles(String patternString, String[] args) {
+        boolean showFileName = args.length > 3;
+        boolean anyMatched = false;
+        boolean anyFailed = false;
+        // Not autoflushing: matched lines are written in 64 KiB blocks, not one write per line.
+        PrintStream out = new PrintStream(
+            new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 64 * 1024),
+            false, StandardCharsets.UTF_8);
+        
+        try (CompressedInputPipeline pipeline =
+                new CompressedInputPipeline(patternFactory.createPattern(patternString))) {
+            for (int i = 2; i < args.length; i++) {
+                String fileName = args[i];
+                Consumer<String> sink = showFileName
+                    ? line -> out.println(fileName + ":" + line)
+                    : out::println;
+                
+                try {
+                    anyMatched |= pipeline.run(Path.of(fileName), sink);
+                } catch (IOException | InvalidPathException e) {
+                    out.flush();
+                    System.err.println(fileName + ": " + describe(e));
+                    anyFailed = true;
+                }
+            }
+        } catch (Exception e) {
+            out.flush();
+            System.err.println("Error: " + e.getMessage());
+            System.exit(2);
+        }
+        
+        out.flush();
+        System.exit(anyFailed ? 2 : anyMatched ? 0 : 1);
+    }
+    
+    private static String describe(Exception e) {
+        if (e instanceof NoSuchFileException) {
+            return "No such file or directory";
+        } else if (e instanceof AccessDeniedException) {
+            return "Permission denied";
+        } else if (e instanceof FileSystemException && ((FileSystemException) e).getReason() != null) {
+            return ((FileSystemException) e).getReason();
+        }
+        return e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+    }
 }
\ No newline at end of file
@@ -5,6 +5,15 @@ import java.util.List;
  * Factory for creating pattern matchers from regex strings.
  */
 public class PatternFactory {
+    private final CharacterClassMode classMode;
+    
+    public PatternFactory() {
+        this(CharacterClassMode.ASCII);
+    }
+    
+    public PatternFactory(CharacterClassMode classMode) {
+        this.classMode = classMode;
+    }
     
     public PatternMatcher createPattern(String regex) {
         if (regex == null || regex.isEmpty()) {
@@ -101,9 +110,17 @@ public class PatternFactory {
         char escaped = regex.charAt(position + 1);
         switch (escaped) {
             case 'd':
-                return new ElementParseResult(new DigitClassPattern(), position + 2);
+            case 'D':
+                return new ElementParseResult(
+                    new DigitClassPattern(classMode, escaped == 'D'), position + 2);
             case 'w':
-                return new ElementParseResult(new WordClassPattern(), position + 2);
+            case 'W':
+                return new ElementParseResult(
+                    new WordClassPattern(classMode, escaped == 'W'), position + 2);
+            case 's':
+            case 'S':
+                return new ElementParseResult(
+                    new WhitespaceClassPattern(classMode, escaped == 'S'), position + 2);
             default:
                 return new ElementParseResult(new LiteralCharacterPattern(escaped), position + 2);
         }
@@ -0,0 +1,13 @@
+/**
+ * Matches whitespace characters (\s), or any non-whitespace when negated (\S).
+ */
+public class WhitespaceClassPattern extends CharacterClassPattern {
+    
+    public WhitespaceClassPattern() {
+        this(CharacterClassMode.ASCII, false);
+    }
+    
+    public WhitespaceClassPattern(CharacterClassMode mode, boolean negated) {
+        super(CharacterClass.whitespace(mode), negated);
+    }
+}
\ No newline at end of file
@@ -1,10 +1,13 @@
 /**
- * Matches word characters (\w) - letters, digits, underscore.
+ * Matches word characters (\w) - letters, digits, underscore - or anything else when negated (\W).
  */
-public class WordClassPattern extends PatternElement {
+public class WordClassPattern extends CharacterClassPattern {
     
-    @Override
-    public boolean matchesCharacter(char c) {
-        return Character.isLetterOrDigit(c) || c == '_';
+    public WordClassPattern() {
+        this(CharacterClassMode.ASCII, false);
+    }
+    
+    public WordClassPattern(CharacterClassMode mode, boolean negated) {
+        super(CharacterClass.word(mode), negated);
     }
 }
\ No newline at end of file